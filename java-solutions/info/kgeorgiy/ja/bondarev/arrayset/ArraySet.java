@@ -2,7 +2,7 @@ package info.kgeorgiy.ja.bondarev.arrayset;
 
 import java.util.*;
 
-public class ArraySet<T> extends AbstractSet<T> implements SortedSet<T> {
+public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
     private final List<T> array;
     private final Comparator<? super T> comparator;
 
@@ -12,22 +12,52 @@ public class ArraySet<T> extends AbstractSet<T> implements SortedSet<T> {
     }
 
     public ArraySet(Collection<? extends T> collection) {
-        this.array = new ArrayList<>(new TreeSet<>(collection));
-        this.comparator = null;
+        this(collection, null);
     }
 
     public ArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
-        SortedSet<T> sortedSet = new TreeSet<>(comparator);
-        sortedSet.addAll(collection);
-        this.array = new ArrayList<>(sortedSet);
+        this.array = toSortedList(collection, comparator);
         this.comparator = comparator;
     }
 
-    private ArraySet(Comparator<? super T> comparator) {
-        this.array = new ArrayList<>();
+    // adopts already sorted list of distinct elements, subsets are views of it
+    private ArraySet(Comparator<? super T> comparator, List<T> array) {
+        this.array = array;
         this.comparator = comparator;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(Comparator<? super T> comparator, T first, T second) {
+        return comparator == null ? ((Comparable<? super T>) first).compareTo(second) : comparator.compare(first, second);
+    }
+
+    // presorted input is adopted after a single pass, otherwise it is sorted and deduplicated in place
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> toSortedList(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        final T[] elements = (T[]) collection.toArray();
+        if (elements.length == 0) {
+            return Collections.emptyList();
+        }
+        // same type and null checks as TreeSet performs for its first element
+        compare(comparator, elements[0], elements[0]);
+        boolean sorted = true;
+        for (int i = 1; i < elements.length && sorted; i++) {
+            sorted = compare(comparator, elements[i - 1], elements[i]) < 0;
+        }
+        if (sorted) {
+            return Arrays.asList(elements);
+        }
+
+        Arrays.sort(elements, comparator);
+        int size = 1;
+        for (int i = 1; i < elements.length; i++) {
+            if (compare(comparator, elements[size - 1], elements[i]) != 0) {
+                elements[size++] = elements[i];
+            }
+        }
+        return Arrays.asList(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
     @Override
     public Iterator<T> iterator() {
         return Collections.unmodifiableList(array).iterator();
@@ -44,30 +74,125 @@ public class ArraySet<T> extends AbstractSet<T> implements SortedSet<T> {
     }
 
     private int binarySearch(T element) {
-        final int insertionPoint = Collections.binarySearch(array, element, comparator);
-        return insertionPoint < 0 ? -insertionPoint - 1 : insertionPoint;
+        return Collections.binarySearch(array, element, comparator);
     }
 
-    private SortedSet<T> subList(int fromIndex, int toIndex) {
-        return new ArraySet<>(array.subList(fromIndex, toIndex), comparator);
+    private int lowerIndex(T element, boolean inclusive) {
+        final int index = binarySearch(element);
+        return index >= 0 ? (inclusive ? index : index - 1) : -index - 2;
+    }
+
+    private int higherIndex(T element, boolean inclusive) {
+        final int index = binarySearch(element);
+        return index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+    }
+
+    private T elementAt(int index) {
+        return 0 <= index && index < array.size() ? array.get(index) : null;
+    }
+
+    @Override
+    public T lower(T element) {
+        return elementAt(lowerIndex(element, false));
+    }
+
+    @Override
+    public T floor(T element) {
+        return elementAt(lowerIndex(element, true));
+    }
+
+    @Override
+    public T ceiling(T element) {
+        return elementAt(higherIndex(element, true));
     }
 
     @Override
-    public SortedSet<T> subSet(T fromElement, T toElement) {
-        if (comparator != null && comparator.compare(fromElement, toElement) > 0) {
+    public T higher(T element) {
+        return elementAt(higherIndex(element, false));
+    }
+
+    @Override
+    public T pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    private NavigableSet<T> subList(int fromIndex, int toIndex) {
+        return new ArraySet<>(comparator, array.subList(fromIndex, Math.max(fromIndex, toIndex)));
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(comparator, fromElement, toElement) > 0) {
             throw new IllegalArgumentException();
         }
-        return subList(binarySearch(fromElement), binarySearch(toElement));
+        return subList(higherIndex(fromElement, fromInclusive), lowerIndex(toElement, toInclusive) + 1);
     }
 
     @Override
-    public SortedSet<T> headSet(T toElement) {
-        return subList(0, binarySearch(toElement));
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return subList(0, lowerIndex(toElement, inclusive) + 1);
     }
 
     @Override
-    public SortedSet<T> tailSet(T fromElement) {
-        return subList(binarySearch(fromElement), size());
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return subList(higherIndex(fromElement, inclusive), size());
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        final List<T> reversed = array instanceof ReversedList<T> list ? list.list : new ReversedList<>(array);
+        return new ArraySet<>(reversed(comparator), reversed);
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    private static <T> Comparator<? super T> reversed(Comparator<? super T> comparator) {
+        if (comparator == null) {
+            return Collections.reverseOrder();
+        }
+        // keeps natural ordering represented by null after double reversal
+        return comparator == Collections.reverseOrder() ? null : Collections.reverseOrder(comparator);
+    }
+
+    private static class ReversedList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> list;
+
+        private ReversedList(List<T> list) {
+            this.list = list;
+        }
+
+        @Override
+        public T get(int index) {
+            return list.get(list.size() - 1 - index);
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
     }
 
     @Override
@@ -93,4 +218,205 @@ public class ArraySet<T> extends AbstractSet<T> implements SortedSet<T> {
     public boolean contains(Object object) {
         return Collections.binarySearch(array, (T) Objects.requireNonNull(object), comparator) >= 0;
     }
+
+    // for each probe returns its index in this set, or -(insertion point) - 1 as Collections.binarySearch does;
+    // probes are visited in sorted order, each search starts where the previous one stopped
+    public int[] binarySearchAll(List<? extends T> probes) {
+        final int[] result = new int[probes.size()];
+        int position = 0;
+        for (int index : sortedOrder(probes)) {
+            final T probe = Objects.requireNonNull(probes.get(index));
+            position = gallop(array, position, probe, comparator);
+            final boolean found = position < array.size() && compare(comparator, array.get(position), probe) == 0;
+            result[index] = found ? position : -position - 1;
+        }
+        return result;
+    }
+
+    public BitSet containsEach(List<? extends T> probes) {
+        final int[] indices = binarySearchAll(probes);
+        final BitSet result = new BitSet(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] >= 0) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    private int[] sortedOrder(List<? extends T> probes) {
+        boolean sorted = true;
+        for (int i = 1; i < probes.size() && sorted; i++) {
+            sorted = compare(comparator, probes.get(i - 1), probes.get(i)) <= 0;
+        }
+        if (sorted) {
+            final int[] order = new int[probes.size()];
+            Arrays.setAll(order, i -> i);
+            return order;
+        }
+        final Integer[] order = new Integer[probes.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (first, second) -> compare(comparator, probes.get(first), probes.get(second)));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    // below this size ratio plain merging is cheaper than galloping
+    private static final int GALLOP_RATIO = 8;
+
+    private static <T> Comparator<? super T> commonComparator(ArraySet<T> first, ArraySet<T> second) {
+        if (!Objects.equals(first.comparator, second.comparator)) {
+            throw new IllegalArgumentException("Sets have different orderings");
+        }
+        return first.comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArraySet<T> adopt(Comparator<? super T> comparator, Object[] elements, int size) {
+        return new ArraySet<>(comparator, Arrays.asList((T[]) Arrays.copyOf(elements, size)));
+    }
+
+    private static boolean skewed(int smaller, int larger) {
+        return (long) smaller * GALLOP_RATIO < larger;
+    }
+
+    // first index in [from, size) whose element is not less than key
+    private static <T> int gallop(List<T> list, int from, T key, Comparator<? super T> comparator) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < list.size() && compare(comparator, list.get(high), key) < 0) {
+            low = high + 1;
+            high = (int) Math.min(list.size(), (long) high + step);
+            step <<= 1;
+        }
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(comparator, list.get(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public static <T> ArraySet<T> union(ArraySet<T> first, ArraySet<T> second) {
+        final Comparator<? super T> comparator = commonComparator(first, second);
+        final List<T> a = first.array;
+        final List<T> b = second.array;
+        final Object[] result = new Object[a.size() + b.size()];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            final int compared = compare(comparator, a.get(i), b.get(j));
+            if (compared <= 0) {
+                result[size++] = a.get(i++);
+                j += compared == 0 ? 1 : 0;
+            } else {
+                result[size++] = b.get(j++);
+            }
+        }
+        while (i < a.size()) {
+            result[size++] = a.get(i++);
+        }
+        while (j < b.size()) {
+            result[size++] = b.get(j++);
+        }
+        return adopt(comparator, result, size);
+    }
+
+    public static <T> ArraySet<T> intersection(ArraySet<T> first, ArraySet<T> second) {
+        final Comparator<? super T> comparator = commonComparator(first, second);
+        final List<T> a = first.array;
+        final List<T> b = second.array;
+        final Object[] result = new Object[Math.min(a.size(), b.size())];
+        int size = 0;
+        if (skewed(a.size(), b.size())) {
+            for (int i = 0, j = 0; i < a.size() && j < b.size(); i++) {
+                j = gallop(b, j, a.get(i), comparator);
+                if (j < b.size() && compare(comparator, a.get(i), b.get(j)) == 0) {
+                    result[size++] = a.get(i);
+                }
+            }
+        } else if (skewed(b.size(), a.size())) {
+            for (int i = 0, j = 0; i < a.size() && j < b.size(); j++) {
+                i = gallop(a, i, b.get(j), comparator);
+                if (i < a.size() && compare(comparator, a.get(i), b.get(j)) == 0) {
+                    result[size++] = a.get(i);
+                }
+            }
+        } else {
+            for (int i = 0, j = 0; i < a.size() && j < b.size(); ) {
+                final int compared = compare(comparator, a.get(i), b.get(j));
+                if (compared == 0) {
+                    result[size++] = a.get(i);
+                }
+                i += compared <= 0 ? 1 : 0;
+                j += compared >= 0 ? 1 : 0;
+            }
+        }
+        return adopt(comparator, result, size);
+    }
+
+    public static <T> ArraySet<T> difference(ArraySet<T> first, ArraySet<T> second) {
+        final Comparator<? super T> comparator = commonComparator(first, second);
+        final List<T> a = first.array;
+        final List<T> b = second.array;
+        final Object[] result = new Object[a.size()];
+        int size = 0;
+        if (skewed(b.size(), a.size())) {
+            int i = 0;
+            for (int j = 0; i < a.size() && j < b.size(); j++) {
+                final int next = gallop(a, i, b.get(j), comparator);
+                while (i < next) {
+                    result[size++] = a.get(i++);
+                }
+                if (i < a.size() && compare(comparator, a.get(i), b.get(j)) == 0) {
+                    i++;
+                }
+            }
+            while (i < a.size()) {
+                result[size++] = a.get(i++);
+            }
+        } else {
+            final boolean gallop = skewed(a.size(), b.size());
+            for (int i = 0, j = 0; i < a.size(); i++) {
+                if (gallop) {
+                    j = gallop(b, j, a.get(i), comparator);
+                } else {
+                    while (j < b.size() && compare(comparator, b.get(j), a.get(i)) < 0) {
+                        j++;
+                    }
+                }
+                if (j == b.size() || compare(comparator, a.get(i), b.get(j)) != 0) {
+                    result[size++] = a.get(i);
+                }
+            }
+        }
+        return adopt(comparator, result, size);
+    }
+
+    public static <T> boolean containsAll(ArraySet<T> set, ArraySet<T> elements) {
+        final Comparator<? super T> comparator = commonComparator(set, elements);
+        final List<T> a = set.array;
+        final List<T> b = elements.array;
+        if (b.size() > a.size()) {
+            return false;
+        }
+        final boolean gallop = skewed(b.size(), a.size());
+        for (int i = 0, j = 0; j < b.size(); j++, i++) {
+            if (gallop) {
+                i = gallop(a, i, b.get(j), comparator);
+            } else {
+                while (i < a.size() && compare(comparator, a.get(i), b.get(j)) < 0) {
+                    i++;
+                }
+            }
+            if (i == a.size() || compare(comparator, a.get(i), b.get(j)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,233 @@
+package info.kgeorgiy.ja.bondarev.arrayset;
+
+import java.util.*;
+
+public class IntArraySet extends AbstractSet<Integer> implements SortedSet<Integer> {
+    private static final int SAMPLE_SHIFT = 5;
+
+    private final int[] array;
+    private final int from;
+    private final int to;
+    // optional sampled index over the whole array: every 2^SAMPLE_SHIFT-th element
+    private final int[] samples;
+
+    public IntArraySet() {
+        this(new int[0], 0, 0);
+    }
+
+    public IntArraySet(int[] elements) {
+        this.array = toSortedArray(elements.clone());
+        this.from = 0;
+        this.to = array.length;
+        this.samples = null;
+    }
+
+    public IntArraySet(Collection<? extends Integer> collection) {
+        this.array = toSortedArray(collection.stream().mapToInt(Integer::intValue).toArray());
+        this.from = 0;
+        this.to = array.length;
+        this.samples = null;
+    }
+
+    // view of array[from, to), which is sorted and has no duplicates
+    private IntArraySet(int[] array, int from, int to) {
+        this(array, from, to, null);
+    }
+
+    private IntArraySet(int[] array, int from, int to, int[] samples) {
+        this.array = array;
+        this.from = from;
+        this.to = to;
+        this.samples = samples;
+    }
+
+    // returns the same set with a sampled index: searches first run over the compact samples
+    // and then inside one small block, which takes far fewer cache misses on large sets
+    public IntArraySet withSearchIndex() {
+        if (samples != null) {
+            return this;
+        }
+        final int[] samples = new int[(array.length + (1 << SAMPLE_SHIFT) - 1) >> SAMPLE_SHIFT];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = array[i << SAMPLE_SHIFT];
+        }
+        return new IntArraySet(array, from, to, samples);
+    }
+
+    // same contract as Arrays.binarySearch over the whole array
+    private int sampledSearch(int key) {
+        int low = 0;
+        int high = samples.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (samples[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return -1;
+        }
+        final int blockFrom = (low - 1) << SAMPLE_SHIFT;
+        return Arrays.binarySearch(array, blockFrom, Math.min(array.length, blockFrom + (1 << SAMPLE_SHIFT)), key);
+    }
+
+    private int search(int element) {
+        if (samples == null) {
+            return Arrays.binarySearch(array, from, to, element);
+        }
+        final int index = sampledSearch(element);
+        final int point = index < 0 ? -index - 1 : index;
+        if (point < from) {
+            return -from - 1;
+        }
+        if (point >= to) {
+            return -to - 1;
+        }
+        return index;
+    }
+
+    private static int[] toSortedArray(int[] elements) {
+        boolean sorted = true;
+        for (int i = 1; i < elements.length && sorted; i++) {
+            sorted = elements[i - 1] < elements[i];
+        }
+        if (sorted) {
+            return elements;
+        }
+        Arrays.sort(elements);
+        int size = 1;
+        for (int i = 1; i < elements.length; i++) {
+            if (elements[size - 1] != elements[i]) {
+                elements[size++] = elements[i];
+            }
+        }
+        return size == elements.length ? elements : Arrays.copyOf(elements, size);
+    }
+
+    private int binarySearch(int element) {
+        final int index = search(element);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    public boolean contains(int element) {
+        return search(element) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof Integer element && contains(element.intValue());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return array[index++];
+            }
+        };
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOfRange(array, from, to);
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    private IntArraySet subArray(int fromIndex, int toIndex) {
+        return new IntArraySet(array, fromIndex, toIndex, samples);
+    }
+
+    public IntArraySet subSet(int fromElement, int toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return subArray(binarySearch(fromElement), binarySearch(toElement));
+    }
+
+    public IntArraySet headSet(int toElement) {
+        return subArray(from, binarySearch(toElement));
+    }
+
+    public IntArraySet tailSet(int fromElement) {
+        return subArray(binarySearch(fromElement), to);
+    }
+
+    @Override
+    public IntArraySet subSet(Integer fromElement, Integer toElement) {
+        return subSet(fromElement.intValue(), toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet headSet(Integer toElement) {
+        return headSet(toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet tailSet(Integer fromElement) {
+        return tailSet(fromElement.intValue());
+    }
+
+    public int firstInt() {
+        requireNotEmpty();
+        return array[from];
+    }
+
+    public int lastInt() {
+        requireNotEmpty();
+        return array[to - 1];
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    private void requireNotEmpty() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof IntArraySet other) {
+            return Arrays.equals(array, from, to, other.array, other.from, other.to);
+        }
+        return super.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash += Integer.hashCode(array[i]);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,233 @@
+package info.kgeorgiy.ja.bondarev.arrayset;
+
+import java.util.*;
+
+public class LongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+    private static final int SAMPLE_SHIFT = 5;
+
+    private final long[] array;
+    private final int from;
+    private final int to;
+    // optional sampled index over the whole array: every 2^SAMPLE_SHIFT-th element
+    private final long[] samples;
+
+    public LongArraySet() {
+        this(new long[0], 0, 0);
+    }
+
+    public LongArraySet(long[] elements) {
+        this.array = toSortedArray(elements.clone());
+        this.from = 0;
+        this.to = array.length;
+        this.samples = null;
+    }
+
+    public LongArraySet(Collection<? extends Long> collection) {
+        this.array = toSortedArray(collection.stream().mapToLong(Long::longValue).toArray());
+        this.from = 0;
+        this.to = array.length;
+        this.samples = null;
+    }
+
+    // view of array[from, to), which is sorted and has no duplicates
+    private LongArraySet(long[] array, int from, int to) {
+        this(array, from, to, null);
+    }
+
+    private LongArraySet(long[] array, int from, int to, long[] samples) {
+        this.array = array;
+        this.from = from;
+        this.to = to;
+        this.samples = samples;
+    }
+
+    // returns the same set with a sampled index: searches first run over the compact samples
+    // and then inside one small block, which takes far fewer cache misses on large sets
+    public LongArraySet withSearchIndex() {
+        if (samples != null) {
+            return this;
+        }
+        final long[] samples = new long[(array.length + (1 << SAMPLE_SHIFT) - 1) >> SAMPLE_SHIFT];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = array[i << SAMPLE_SHIFT];
+        }
+        return new LongArraySet(array, from, to, samples);
+    }
+
+    // same contract as Arrays.binarySearch over the whole array
+    private int sampledSearch(long key) {
+        int low = 0;
+        int high = samples.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (samples[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return -1;
+        }
+        final int blockFrom = (low - 1) << SAMPLE_SHIFT;
+        return Arrays.binarySearch(array, blockFrom, Math.min(array.length, blockFrom + (1 << SAMPLE_SHIFT)), key);
+    }
+
+    private int search(long element) {
+        if (samples == null) {
+            return Arrays.binarySearch(array, from, to, element);
+        }
+        final int index = sampledSearch(element);
+        final int point = index < 0 ? -index - 1 : index;
+        if (point < from) {
+            return -from - 1;
+        }
+        if (point >= to) {
+            return -to - 1;
+        }
+        return index;
+    }
+
+    private static long[] toSortedArray(long[] elements) {
+        boolean sorted = true;
+        for (int i = 1; i < elements.length && sorted; i++) {
+            sorted = elements[i - 1] < elements[i];
+        }
+        if (sorted) {
+            return elements;
+        }
+        Arrays.sort(elements);
+        int size = 1;
+        for (int i = 1; i < elements.length; i++) {
+            if (elements[size - 1] != elements[i]) {
+                elements[size++] = elements[i];
+            }
+        }
+        return size == elements.length ? elements : Arrays.copyOf(elements, size);
+    }
+
+    private int binarySearch(long element) {
+        final int index = search(element);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    public boolean contains(long element) {
+        return search(element) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof Long element && contains(element.longValue());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return array[index++];
+            }
+        };
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOfRange(array, from, to);
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    private LongArraySet subArray(int fromIndex, int toIndex) {
+        return new LongArraySet(array, fromIndex, toIndex, samples);
+    }
+
+    public LongArraySet subSet(long fromElement, long toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return subArray(binarySearch(fromElement), binarySearch(toElement));
+    }
+
+    public LongArraySet headSet(long toElement) {
+        return subArray(from, binarySearch(toElement));
+    }
+
+    public LongArraySet tailSet(long fromElement) {
+        return subArray(binarySearch(fromElement), to);
+    }
+
+    @Override
+    public LongArraySet subSet(Long fromElement, Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet headSet(Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet tailSet(Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    public long firstLong() {
+        requireNotEmpty();
+        return array[from];
+    }
+
+    public long lastLong() {
+        requireNotEmpty();
+        return array[to - 1];
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    private void requireNotEmpty() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof LongArraySet other) {
+            return Arrays.equals(array, from, to, other.array, other.from, other.to);
+        }
+        return super.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash += Long.hashCode(array[i]);
+        }
+        return hash;
+    }
+}
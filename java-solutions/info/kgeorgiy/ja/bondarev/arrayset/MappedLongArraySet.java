@@ -0,0 +1,191 @@
+package info.kgeorgiy.ja.bondarev.arrayset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class MappedLongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+    private static final int MAGIC = 0x4C415353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
+    private final LongBuffer buffer;
+    private final int from;
+    private final int to;
+
+    // view of buffer[from, to), which is sorted and has no duplicates
+    private MappedLongArraySet(LongBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static void write(LongArraySet set, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16);
+            chunk.putInt(MAGIC).putInt(VERSION).putLong(set.size());
+            final PrimitiveIterator.OfLong iterator = set.iterator();
+            while (iterator.hasNext()) {
+                if (chunk.remaining() < Long.BYTES) {
+                    writeFully(channel, chunk.flip());
+                    chunk.clear();
+                }
+                chunk.putLong(iterator.nextLong());
+            }
+            writeFully(channel, chunk.flip());
+            channel.force(true);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public static MappedLongArraySet open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Unsupported set file size: " + fileSize);
+            }
+            final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                throw new IOException("Not a set file: " + file);
+            }
+            final long count = mapped.getLong();
+            if (count != (fileSize - HEADER_SIZE) / Long.BYTES) {
+                throw new IOException("Truncated set file: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedLongArraySet(mapped.slice().asLongBuffer(), 0, (int) count);
+        }
+    }
+
+    // same contract as Arrays.binarySearch
+    private int search(long key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long value = buffer.get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private int binarySearch(long element) {
+        final int index = search(element);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    public boolean contains(long element) {
+        return search(element) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof Long element && contains(element.longValue());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return buffer.get(index++);
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    private MappedLongArraySet subBuffer(int fromIndex, int toIndex) {
+        return new MappedLongArraySet(buffer, fromIndex, toIndex);
+    }
+
+    public MappedLongArraySet subSet(long fromElement, long toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return subBuffer(binarySearch(fromElement), binarySearch(toElement));
+    }
+
+    public MappedLongArraySet headSet(long toElement) {
+        return subBuffer(from, binarySearch(toElement));
+    }
+
+    public MappedLongArraySet tailSet(long fromElement) {
+        return subBuffer(binarySearch(fromElement), to);
+    }
+
+    @Override
+    public MappedLongArraySet subSet(Long fromElement, Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet headSet(Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet tailSet(Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    public long firstLong() {
+        requireNotEmpty();
+        return buffer.get(from);
+    }
+
+    public long lastLong() {
+        requireNotEmpty();
+        return buffer.get(to - 1);
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    private void requireNotEmpty() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+    }
+}
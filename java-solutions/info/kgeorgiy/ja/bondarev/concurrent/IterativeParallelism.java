@@ -2,54 +2,397 @@ package info.kgeorgiy.ja.bondarev.concurrent;
 
 import info.kgeorgiy.java.advanced.concurrent.ListIP;
 import info.kgeorgiy.java.advanced.concurrent.ScalarIP;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.*;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class IterativeParallelism implements ScalarIP, ListIP {
-    public static <T, S, R> R template(int threadsCount, final List<T> list,
-                                    final Function<Stream<T>, S> handler,
-                                    final Function<Stream<S>, R> reducer)
+    // adaptive chunks are sized to take about this long
+    private static final long TARGET_CHUNK_NANOS = 100_000;
+
+    public enum Scheduling {
+        // one contiguous slice per thread
+        STATIC,
+        // threads claim small chunks from a shared cursor, sized by the measured cost per element
+        ADAPTIVE
+    }
+
+    private final ParallelMapper mapper;
+    private final Scheduling scheduling;
+    private final boolean scoped;
+
+    public IterativeParallelism() {
+        this(null, Scheduling.STATIC);
+    }
+
+    // all operations run on the workers of the given mapper instead of starting new threads;
+    // the mapper is not closed here, it belongs to the caller
+    public IterativeParallelism(final ParallelMapper mapper) {
+        this(mapper, Scheduling.STATIC);
+    }
+
+    public IterativeParallelism(final Scheduling scheduling) {
+        this(null, scheduling);
+    }
+
+    public IterativeParallelism(final ParallelMapper mapper, final Scheduling scheduling) {
+        this(mapper, scheduling, false);
+    }
+
+    private IterativeParallelism(final ParallelMapper mapper, final Scheduling scheduling, final boolean scoped) {
+        this.mapper = mapper;
+        this.scheduling = Objects.requireNonNull(scheduling);
+        this.scoped = scoped;
+    }
+
+    // every chunk runs on its own virtual thread when the runtime has them, so the threads
+    // argument may be far larger than the number of cores for blocking predicates and mappers;
+    // the first failing chunk interrupts its siblings
+    public static IterativeParallelism scoped(final Scheduling scheduling) {
+        return new IterativeParallelism(null, scheduling, true);
+    }
+
+    private static int threads(final int threadsCount, final int size) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threadsCount);
+        }
+        return Math.max(1, Math.min(threadsCount, size));
+    }
+
+    private static <T> List<List<T>> split(final int threadsCount, final List<T> list) {
+        final int chunks = threads(threadsCount, list.size());
+        final int sizeToThread = list.size() / chunks;
+        final List<List<T>> result = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            result.add(list.subList(i * sizeToThread, i + 1 == chunks ? list.size() : (i + 1) * sizeToThread));
+        }
+        return result;
+    }
+
+    // applies f to every task on its own new thread
+    private static <X, Y> List<Y> runThreads(final List<X> tasks, final Function<? super X, ? extends Y> f)
             throws InterruptedException {
-        threadsCount = Math.min(threadsCount, list.size());
-        final int sizeToThread = list.size() / threadsCount;
-        final List<S> threadResult = new ArrayList<>(Collections.nCopies(threadsCount, null));
-        final List<Thread> threads = new ArrayList<>(threadsCount);
-        for (int i = 0; i < threadsCount; i++) {
-            final List<T> listToThread = list.subList(i * sizeToThread,
-                    i + 1 == threadsCount ? list.size() : (i + 1) * sizeToThread);
+        final List<Y> threadResult = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            final X task = tasks.get(i);
             final int threadIter = i;
-            threads.add(new Thread(() -> threadResult.set(threadIter, handler.apply(listToThread.stream()))));
+            threads.add(new Thread(() -> {
+                try {
+                    threadResult.set(threadIter, f.apply(task));
+                } catch (final RuntimeException | Error e) {
+                    failures.add(e);
+                }
+            }));
             threads.get(i).start();
         }
 
-        final List<InterruptedException> exceptions = new ArrayList<>();
-        threads.forEach(x -> {
+        InterruptedException interrupted = null;
+        for (int i = 0; i < threads.size(); i++) {
             try {
-                x.join();
+                threads.get(i).join();
             } catch (final InterruptedException exception) {
-                exceptions.add(exception);
+                if (interrupted == null) {
+                    interrupted = exception;
+                    threads.forEach(Thread::interrupt);
+                } else {
+                    interrupted.addSuppressed(exception);
+                }
+                // the thread is still running: wait for it again
+                i--;
             }
+        }
+        if (interrupted != null) {
+            throw interrupted;
+        }
+        if (!failures.isEmpty()) {
+            final Throwable failure = failures.stream().reduce((a, b) -> {
+                a.addSuppressed(b);
+                return a;
+            }).get();
+            // the same as ParallelMapperImpl: only unchecked exceptions and errors get here
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) failure;
+        }
+        return threadResult;
+    }
+
+    public static <T, S, R> R template(final int threadsCount, final List<T> list,
+                                    final Function<Stream<T>, S> handler,
+                                    final Function<Stream<S>, R> reducer)
+            throws InterruptedException {
+        final List<S> threadResult = runThreads(split(threadsCount, list), chunk -> handler.apply(chunk.stream()));
+        return reducer.apply(threadResult.stream().filter(Objects::nonNull));
+    }
+
+    private static ExecutorService newScopeExecutor(final int tasks) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            // same shape as runThreads: every chunk still gets a thread of its own
+            return Executors.newFixedThreadPool(tasks);
+        }
+    }
+
+    // the same contract as StructuredTaskScope.ShutdownOnFailure, which is not available here:
+    // the first failure interrupts the other tasks and is rethrown, and no task outlives the call
+    private static <X, Y> List<Y> runScoped(final List<X> tasks, final Function<? super X, ? extends Y> f)
+            throws InterruptedException {
+        final List<Y> taskResult = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        final ExecutorService executor = newScopeExecutor(tasks.size());
+        try {
+            final CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < tasks.size(); i++) {
+                final int index = i;
+                completion.submit(() -> {
+                    taskResult.set(index, f.apply(tasks.get(index)));
+                    return null;
+                });
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (final ExecutionException e) {
+                    executor.shutdownNow();
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    if (e.getCause() instanceof Error cause) {
+                        throw cause;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return taskResult;
+        } finally {
+            executor.shutdownNow();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                        break;
+                    }
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <X, Y> List<Y> execute(final List<X> tasks, final Function<? super X, ? extends Y> f)
+            throws InterruptedException {
+        if (scoped) {
+            return runScoped(tasks, f);
+        }
+        return mapper == null ? runThreads(tasks, f) : mapper.map(f, tasks);
+    }
+
+    private record Chunk<S>(long from, S result) {
+    }
+
+    // where the elements of one call come from; claims are made concurrently by the workers
+    private interface Source<T> {
+        // the next at most size elements and the position of the first of them, or null at the end
+        Chunk<List<T>> claim(long size);
+
+        long remaining();
+    }
+
+    // a random access list, claimed by index ranges from a shared cursor
+    private record Slices<T>(List<T> list, AtomicLong cursor) implements Source<T> {
+        Slices(final List<T> list) {
+            this(list, new AtomicLong());
+        }
+
+        @Override
+        public Chunk<List<T>> claim(final long size) {
+            final long from = cursor.getAndAdd(size);
+            if (from >= list.size()) {
+                return null;
+            }
+            return new Chunk<>(from, list.subList((int) from, (int) Math.min(list.size(), from + size)));
+        }
+
+        @Override
+        public long remaining() {
+            return Math.max(0, list.size() - cursor.get());
+        }
+    }
+
+    // any other source: it is walked once, and every claim copies the next batch out of it
+    // under a lock, so a linked or lazily computed list is never walked from its head again
+    private static class Batches<T> implements Source<T> {
+        private final Spliterator<T> spliterator;
+        private long position;
+
+        Batches(final Spliterator<T> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        public synchronized Chunk<List<T>> claim(final long size) {
+            final List<T> batch = new ArrayList<>((int) Math.min(size, 1 << 10));
+            while (batch.size() < size && spliterator.tryAdvance(batch::add)) {
+                // copying the batch
+            }
+            if (batch.isEmpty()) {
+                return null;
+            }
+            final Chunk<List<T>> chunk = new Chunk<>(position, batch);
+            position += batch.size();
+            return chunk;
+        }
+
+        @Override
+        public synchronized long remaining() {
+            return spliterator.estimateSize();
+        }
+    }
+
+    private static <T> Source<T> source(final List<T> list) {
+        return list instanceof RandomAccess ? new Slices<>(list) : new Batches<>(list.spliterator());
+    }
+
+    // every worker claims chunks from the source until it is exhausted. Chunk size doubles while
+    // chunks stay cheaper than TARGET_CHUNK_NANOS and never exceeds half of the fair share of
+    // what is left, so the last chunks are small and idle workers pick them up
+    private <T, S> List<S> adaptive(final int threadsCount, final Source<T> source,
+                                    final Function<Stream<T>, S> handler, final BooleanSupplier stopped)
+            throws InterruptedException {
+        final int workers = threads(threadsCount, (int) Math.min(Integer.MAX_VALUE, source.remaining()));
+        final List<List<Chunk<S>>> claimed = execute(Collections.nCopies(workers, source), ignored -> {
+            final List<Chunk<S>> chunks = new ArrayList<>();
+            long size = 1;
+            // once the answer is known, the rest of the source is not even copied out
+            while (!stopped.getAsBoolean()) {
+                final Chunk<List<T>> claim = source.claim(size);
+                if (claim == null) {
+                    break;
+                }
+                final long start = System.nanoTime();
+                chunks.add(new Chunk<>(claim.from(), handler.apply(claim.result().stream())));
+                final long perElement = Math.max(1, (System.nanoTime() - start) / claim.result().size());
+                size = Math.max(1, Math.min(Math.min(2 * size, TARGET_CHUNK_NANOS / perElement),
+                        source.remaining() / (2L * workers)));
+            }
+            return chunks;
         });
-        final Optional<InterruptedException> exception = exceptions.stream().reduce((a, b) -> {
-            a.addSuppressed(b);
-            return a;
+        return claimed.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(Chunk::from))
+                .map(Chunk::result)
+                .collect(Collectors.toList());
+    }
+
+    // random access lists are cut into static slices unless adaptive scheduling is requested,
+    // other sources always go through adaptive claiming
+    private <T, S, R> R run(final int threadsCount, final Source<T> source,
+                            final Function<Stream<T>, S> handler,
+                            final Function<Stream<S>, R> reducer)
+            throws InterruptedException {
+        return run(threadsCount, source, handler, reducer, () -> false);
+    }
+
+    private <T, S, R> R run(final int threadsCount, final Source<T> source,
+                            final Function<Stream<T>, S> handler,
+                            final Function<Stream<S>, R> reducer,
+                            final BooleanSupplier stopped)
+            throws InterruptedException {
+        // once a sibling has failed and interrupted it, a scoped worker stops at its next element
+        // and claims no more chunks
+        final Function<Stream<T>, S> chunkHandler = scoped
+                ? stream -> handler.apply(stream.takeWhile(element -> !Thread.currentThread().isInterrupted()))
+                : handler;
+        final List<S> chunkResult = scheduling == Scheduling.STATIC && source instanceof Slices<T> slices
+                ? execute(split(threadsCount, slices.list()), chunk -> chunkHandler.apply(chunk.stream()))
+                : adaptive(threadsCount, source, chunkHandler,
+                        scoped ? () -> stopped.getAsBoolean() || Thread.currentThread().isInterrupted() : stopped);
+        return reducer.apply(chunkResult.stream());
+    }
+
+    // same as run, but once some chunk result satisfies settles, the other chunks stop
+    // at their next element and return what they have seen so far
+    private <T, S, R> R runUntil(final int threadsCount, final Source<T> source,
+                                 final Function<Stream<T>, S> handler,
+                                 final Predicate<? super S> settles,
+                                 final Function<Stream<S>, R> reducer)
+            throws InterruptedException {
+        final AtomicBoolean settled = new AtomicBoolean();
+        return run(threadsCount, source, stream -> {
+            final S result = handler.apply(stream.takeWhile(element -> !settled.get()));
+            if (settles.test(result)) {
+                settled.set(true);
+            }
+            return result;
+        }, reducer, settled::get);
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int chunk, int from, int to);
+    }
+
+    // runs task over chunks contiguous index ranges of [0, length); tasks write their results
+    // into primitive arrays indexed by chunk, so nothing is boxed per element
+    private void ranges(final int chunks, final int length, final RangeTask task) throws InterruptedException {
+        final int size = length / chunks;
+        execute(IntStream.range(0, chunks).boxed().toList(), chunk -> {
+            task.run(chunk, chunk * size, chunk + 1 == chunks ? length : (chunk + 1) * size);
+            return null;
         });
-        if (exception.isPresent()) {
-            throw exception.get();
+    }
+
+    // chunk results are already materialized by the workers, so the result is sized once
+    // and every chunk is copied exactly once; like Stream.toList, the result has a fixed size
+    @SuppressWarnings("unchecked")
+    private static <U> List<U> concat(final Stream<Object[]> chunks) {
+        final List<Object[]> parts = chunks.toList();
+        if (parts.size() == 1) {
+            return (List<U>) Arrays.asList(parts.get(0));
         }
+        final Object[] result = new Object[parts.stream().mapToInt(part -> part.length).sum()];
+        int position = 0;
+        for (final Object[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return (List<U>) Arrays.asList(result);
+    }
 
-        return reducer.apply(threadResult.stream().filter(Objects::nonNull));
+    private static String concatStrings(final Stream<StringBuilder> chunks) {
+        final List<StringBuilder> parts = chunks.toList();
+        final StringBuilder result = new StringBuilder(parts.stream().mapToInt(StringBuilder::length).sum());
+        parts.forEach(result::append);
+        return result.toString();
     }
 
     @Override
     public <T> T maximum(final int threads, final List<? extends T> values, final Comparator<? super T> comparator)
             throws InterruptedException {
-        return template(threads, values,
+        return run(threads, source(values),
                 stream -> stream.max(comparator).orElse(null),
-                stream -> stream.max(comparator).orElse(null)
+                // only a chunk of an empty list has no maximum
+                stream -> stream.filter(Objects::nonNull).max(comparator).orElse(null)
         );
     }
 
@@ -62,22 +405,23 @@ public class IterativeParallelism implements ScalarIP, ListIP {
     @Override
     public <T> boolean all(final int threads, final List<? extends T> values, final Predicate<? super T> predicate)
             throws InterruptedException {
-        return template(threads, values,
-                stream -> stream.allMatch(predicate),
-                stream -> stream.reduce(Boolean::logicalAnd).orElse(Boolean.TRUE)
-                );
+        return !any(threads, values, predicate.negate());
     }
 
     @Override
     public <T> boolean any(final int threads, final List<? extends T> values, final Predicate<? super T> predicate)
             throws InterruptedException {
-        return !all(threads, values, predicate.negate());
+        return runUntil(threads, source(values),
+                stream -> stream.anyMatch(predicate),
+                Boolean::booleanValue,
+                stream -> stream.reduce(Boolean::logicalOr).orElse(Boolean.FALSE)
+        );
     }
 
     @Override
     public <T> int count(final int threads, final List<? extends T> values, final Predicate<? super T> predicate)
             throws InterruptedException {
-        return template(threads, values,
+        return run(threads, source(values),
                 stream -> stream.filter(predicate).count(),
                 stream -> stream.reduce(Long::sum).orElse(0L)
                 ).intValue();
@@ -85,27 +429,332 @@ public class IterativeParallelism implements ScalarIP, ListIP {
 
     @Override
     public String join(final int threads, final List<?> values) throws InterruptedException {
-        return template(threads, values,
-                stream -> stream.map(Objects::toString),
-                stream -> stream.flatMap(Function.identity()).collect(Collectors.joining())
+        return run(threads, source(values),
+                stream -> {
+                    final StringBuilder chunk = new StringBuilder();
+                    stream.forEach(chunk::append);
+                    return chunk;
+                },
+                IterativeParallelism::concatStrings
         );
     }
 
     @Override
     public <T> List<T> filter(final int threads, final List<? extends T> values, final Predicate<? super T> predicate)
             throws InterruptedException {
-        return template(threads, values,
-                stream -> stream.filter(predicate),
-                stream -> stream.flatMap(Function.identity()).collect(Collectors.toList())
+        return run(threads, source(values),
+                stream -> stream.filter(predicate).toArray(),
+                IterativeParallelism::concat
         );
     }
 
     @Override
     public <T, U> List<U> map(final int threads, final List<? extends T> values, final Function<? super T, ? extends U> f)
             throws InterruptedException {
-        return template(threads, values,
-                stream -> stream.map(f),
-                stream -> stream.flatMap(Function.identity()).collect(Collectors.toList())
+        return run(threads, source(values),
+                stream -> stream.map(f).toArray(),
+                IterativeParallelism::concat
+        );
+    }
+
+    public <T, R> R mapReduce(final int threads, final List<? extends T> values,
+                              final Function<? super T, ? extends R> lift, final Monoid<R> monoid)
+            throws InterruptedException {
+        return mapReduce(threads, source(values), lift, monoid);
+    }
+
+    // the source is walked once by the workers, in batches, and the chunk results are reduced
+    // in the encounter order of the spliterator
+    public <T, R> R mapReduce(final int threads, final Spliterator<? extends T> values,
+                              final Function<? super T, ? extends R> lift, final Monoid<R> monoid)
+            throws InterruptedException {
+        return mapReduce(threads, new Batches<>(values), lift, monoid);
+    }
+
+    public <T, R> R mapReduce(final int threads, final Iterable<? extends T> values,
+                              final Function<? super T, ? extends R> lift, final Monoid<R> monoid)
+            throws InterruptedException {
+        return mapReduce(threads, values.spliterator(), lift, monoid);
+    }
+
+    private <T, R> R mapReduce(final int threads, final Source<T> source,
+                               final Function<? super T, ? extends R> lift, final Monoid<R> monoid)
+            throws InterruptedException {
+        return run(threads, source,
+                stream -> stream.<R>map(lift).reduce(monoid.identity(), monoid.operator()),
+                stream -> stream.reduce(monoid.identity(), monoid.operator())
         );
     }
+
+    public <T> T reduce(final int threads, final List<? extends T> values, final Monoid<T> monoid)
+            throws InterruptedException {
+        return mapReduce(threads, values, Function.identity(), monoid);
+    }
+
+    public <T, A, R> R collect(final int threads, final List<? extends T> values,
+                               final Collector<? super T, A, R> collector)
+            throws InterruptedException {
+        return collect(threads, source(values), collector);
+    }
+
+    public <T, A, R> R collect(final int threads, final Spliterator<? extends T> values,
+                               final Collector<? super T, A, R> collector)
+            throws InterruptedException {
+        return collect(threads, new Batches<>(values), collector);
+    }
+
+    public <T, A, R> R collect(final int threads, final Iterable<? extends T> values,
+                               final Collector<? super T, A, R> collector)
+            throws InterruptedException {
+        return collect(threads, values.spliterator(), collector);
+    }
+
+    // a CONCURRENT and UNORDERED collector gets a single container shared by all workers,
+    // an UNORDERED one has its chunk containers combined by the workers as they finish,
+    // otherwise the containers are combined in list order
+    @SuppressWarnings("unchecked")
+    private <T, A, R> R collect(final int threads, final Source<T> source,
+                                final Collector<? super T, A, R> collector)
+            throws InterruptedException {
+        final Set<Collector.Characteristics> characteristics = collector.characteristics();
+        final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        final A container;
+        if (characteristics.contains(Collector.Characteristics.UNORDERED)
+                && characteristics.contains(Collector.Characteristics.CONCURRENT)) {
+            container = collector.supplier().get();
+            run(threads, source, stream -> {
+                stream.forEach(element -> accumulator.accept(container, element));
+                return null;
+            }, stream -> null);
+        } else if (characteristics.contains(Collector.Characteristics.UNORDERED)) {
+            final AtomicReference<A> merged = new AtomicReference<>();
+            run(threads, source, stream -> {
+                final A accumulated = collector.supplier().get();
+                stream.forEach(element -> accumulator.accept(accumulated, element));
+                A partial = accumulated;
+                // either park the partial container or take the parked one and combine with it
+                while (!merged.compareAndSet(null, partial)) {
+                    final A other = merged.getAndSet(null);
+                    if (other != null) {
+                        partial = collector.combiner().apply(other, partial);
+                    }
+                }
+                return null;
+            }, stream -> null);
+            container = merged.get() != null ? merged.get() : collector.supplier().get();
+        } else {
+            container = run(threads, source, stream -> {
+                final A partial = collector.supplier().get();
+                stream.forEach(element -> accumulator.accept(partial, element));
+                return partial;
+            }, stream -> stream.reduce(collector.combiner()).orElseGet(collector.supplier()));
+        }
+        return characteristics.contains(Collector.Characteristics.IDENTITY_FINISH)
+                ? (R) container
+                : collector.finisher().apply(container);
+    }
+
+    public long sum(final int threads, final int[] values) throws InterruptedException {
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public long sum(final int threads, final int[] values, final IntToLongFunction mapper) throws InterruptedException {
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += mapper.applyAsLong(values[i]);
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public int count(final int threads, final int[] values, final IntPredicate predicate) throws InterruptedException {
+        final int[] partial = new int[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            partial[chunk] = count;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public OptionalInt max(final int threads, final int[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalInt.empty();
+        }
+        final int[] partial = new int[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            int max = values[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, values[i]);
+            }
+            partial[chunk] = max;
+        });
+        return Arrays.stream(partial).max();
+    }
+
+    public OptionalInt min(final int threads, final int[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalInt.empty();
+        }
+        final int[] partial = new int[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            int min = values[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, values[i]);
+            }
+            partial[chunk] = min;
+        });
+        return Arrays.stream(partial).min();
+    }
+
+    public long sum(final int threads, final long[] values) throws InterruptedException {
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public long sum(final int threads, final long[] values, final LongUnaryOperator mapper) throws InterruptedException {
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += mapper.applyAsLong(values[i]);
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public int count(final int threads, final long[] values, final LongPredicate predicate) throws InterruptedException {
+        final int[] partial = new int[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            partial[chunk] = count;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public OptionalLong max(final int threads, final long[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalLong.empty();
+        }
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long max = values[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, values[i]);
+            }
+            partial[chunk] = max;
+        });
+        return Arrays.stream(partial).max();
+    }
+
+    public OptionalLong min(final int threads, final long[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalLong.empty();
+        }
+        final long[] partial = new long[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            long min = values[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, values[i]);
+            }
+            partial[chunk] = min;
+        });
+        return Arrays.stream(partial).min();
+    }
+
+    public double sum(final int threads, final double[] values) throws InterruptedException {
+        final double[] partial = new double[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public double sum(final int threads, final double[] values, final DoubleUnaryOperator mapper) throws InterruptedException {
+        final double[] partial = new double[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += mapper.applyAsDouble(values[i]);
+            }
+            partial[chunk] = sum;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public int count(final int threads, final double[] values, final DoublePredicate predicate) throws InterruptedException {
+        final int[] partial = new int[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            partial[chunk] = count;
+        });
+        return Arrays.stream(partial).sum();
+    }
+
+    public OptionalDouble max(final int threads, final double[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalDouble.empty();
+        }
+        final double[] partial = new double[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            double max = values[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, values[i]);
+            }
+            partial[chunk] = max;
+        });
+        return Arrays.stream(partial).max();
+    }
+
+    public OptionalDouble min(final int threads, final double[] values) throws InterruptedException {
+        if (values.length == 0) {
+            return OptionalDouble.empty();
+        }
+        final double[] partial = new double[threads(threads, values.length)];
+        ranges(partial.length, values.length, (chunk, from, to) -> {
+            double min = values[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, values[i]);
+            }
+            partial[chunk] = min;
+        });
+        return Arrays.stream(partial).min();
+    }
 }
@@ -0,0 +1,8 @@
+package info.kgeorgiy.ja.bondarev.concurrent;
+
+import java.util.function.BinaryOperator;
+
+// operator must be associative and identity must be neutral for it: chunks are reduced
+// separately and then combined
+public record Monoid<T>(T identity, BinaryOperator<T> operator) {
+}
@@ -0,0 +1,177 @@
+package info.kgeorgiy.ja.bondarev.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ParallelMapperImpl implements ParallelMapper {
+    private final List<Thread> workers;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Set<Results<?>> pending = new HashSet<>();
+    private boolean closed;
+
+    public ParallelMapperImpl(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final Thread worker = new Thread(this::work);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void work() {
+        // only close() stops the workers: interrupts that tasks leave behind are cleared
+        while (true) {
+            final Runnable task;
+            synchronized (tasks) {
+                while (tasks.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        tasks.wait();
+                    } catch (final InterruptedException ignored) {
+                        // closed is checked again before waiting
+                    }
+                }
+                task = tasks.poll();
+            }
+            task.run();
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args)
+            throws InterruptedException {
+        if (args.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final Results<R> results = new Results<>(args.size());
+        synchronized (tasks) {
+            if (closed) {
+                throw new IllegalStateException("Mapper is closed");
+            }
+            pending.add(results);
+            for (int i = 0; i < args.size(); i++) {
+                final int index = i;
+                tasks.add(() -> results.compute(index, () -> f.apply(args.get(index))));
+            }
+            tasks.notifyAll();
+        }
+        try {
+            return results.await();
+        } finally {
+            synchronized (tasks) {
+                pending.remove(results);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        final List<Runnable> abandoned;
+        synchronized (tasks) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abandoned = new ArrayList<>(tasks);
+            tasks.clear();
+            for (final Results<?> results : pending) {
+                results.fail(new IllegalStateException("Mapper is closed"));
+            }
+            tasks.notifyAll();
+        }
+        // failed results skip their work, so this only counts the tasks down
+        abandoned.forEach(Runnable::run);
+
+        workers.forEach(Thread::interrupt);
+        boolean interrupted = false;
+        for (final Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Results<R> {
+        private final List<R> values;
+        private int remaining;
+        private Throwable failure;
+
+        Results(final int size) {
+            values = new ArrayList<>(Collections.nCopies(size, null));
+            remaining = size;
+        }
+
+        // once one element has failed, the rest of the call is skipped
+        void compute(final int index, final Supplier<? extends R> value) {
+            if (failed()) {
+                done();
+                return;
+            }
+            try {
+                set(index, value.get());
+            } catch (final RuntimeException | Error e) {
+                fail(e);
+                done();
+            }
+        }
+
+        private synchronized boolean failed() {
+            return failure != null;
+        }
+
+        private synchronized void set(final int index, final R value) {
+            values.set(index, value);
+            done();
+        }
+
+        private synchronized void done() {
+            if (--remaining == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void fail(final Throwable e) {
+            if (failure == null) {
+                failure = e;
+            } else if (failure != e) {
+                failure.addSuppressed(e);
+            }
+        }
+
+        synchronized List<R> await() throws InterruptedException {
+            try {
+                while (remaining > 0) {
+                    wait();
+                }
+            } catch (final InterruptedException e) {
+                fail(e);
+                throw e;
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            if (failure instanceof Error e) {
+                throw e;
+            }
+            return values;
+        }
+    }
+}
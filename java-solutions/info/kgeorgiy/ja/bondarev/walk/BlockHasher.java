@@ -0,0 +1,44 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+abstract class BlockHasher implements HashAlgorithm.Hasher {
+    private final ByteBuffer pending;
+    private long length;
+
+    protected BlockHasher(int blockSize) {
+        this.pending = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // consumes exactly one block from the little-endian buffer
+    protected abstract void processBlock(ByteBuffer block);
+
+    protected abstract byte[] finish(ByteBuffer tail, long length);
+
+    @Override
+    public final void update(ByteBuffer buffer) {
+        length += buffer.remaining();
+        final ByteBuffer input = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.limit());
+        if (pending.position() > 0) {
+            while (pending.hasRemaining() && input.hasRemaining()) {
+                pending.put(input.get());
+            }
+            if (pending.hasRemaining()) {
+                return;
+            }
+            processBlock(pending.flip());
+            pending.clear();
+        }
+        while (input.remaining() >= pending.capacity()) {
+            processBlock(input);
+        }
+        pending.put(input);
+    }
+
+    @Override
+    public final byte[] digest() {
+        return finish(pending.flip(), length);
+    }
+}
@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+// emits the files of a tree depth-first with children sorted by name. Only the listings of the
+// directories on the current path are kept, plus at most LOOKAHEAD subdirectory listings per
+// level that are read ahead on the pool, so memory does not grow with the size of the tree
+class DirectoryWalker {
+    private static final int LOOKAHEAD = 16;
+
+    interface Sink {
+        void accept(String fileName) throws IOException;
+    }
+
+    private final ForkJoinPool pool;
+
+    DirectoryWalker(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    void walk(Path directory, String name, Sink sink) throws IOException {
+        walk(name, list(directory), sink);
+    }
+
+    private void walk(String name, List<Path> children, Sink sink) throws IOException {
+        if (children == null) {
+            // the directory itself goes to the output and gets zero hash
+            sink.accept(name);
+            return;
+        }
+
+        final List<ForkJoinTask<List<Path>>> listings = new ArrayList<>(children.size());
+        int submitted = 0;
+        for (int i = 0; i < children.size(); i++) {
+            for (; submitted < children.size() && submitted <= i + LOOKAHEAD; submitted++) {
+                final Path child = children.get(submitted);
+                listings.add(Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)
+                        ? pool.submit(() -> list(child))
+                        : null);
+            }
+            final ForkJoinTask<List<Path>> listing = listings.set(i, null);
+            if (listing == null) {
+                sink.accept(children.get(i).toString());
+            } else {
+                walk(children.get(i).toString(), listing.join(), sink);
+            }
+        }
+    }
+
+    // null if the directory can't be listed
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.sorted(Comparator.comparing(Path::getFileName)).toList();
+        } catch (IOException | UncheckedIOException | SecurityException e) {
+            return null;
+        }
+    }
+}
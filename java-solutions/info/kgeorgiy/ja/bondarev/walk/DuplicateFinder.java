@@ -0,0 +1,120 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+class DuplicateFinder {
+    private static final int PREFIX_SIZE = 1 << 12;
+
+    // null for a file that can't be read
+    private final Function<Path, String> fullHash;
+    // hash of the first bytes of a file in the same format as fullHash, or null
+    private final BiFunction<Path, Integer, String> prefixHash;
+    private final WalkMetrics metrics;
+    private final ExecutorService executor;
+    // at most this many stat, prefix or hash tasks are in flight, as in Walk.walkParallel
+    private final int window;
+
+    record Group(String hash, List<String> fileNames) {
+    }
+
+    private record Candidate(String fileName, Path file, long size) {
+    }
+
+    DuplicateFinder(Function<Path, String> fullHash, BiFunction<Path, Integer, String> prefixHash,
+                    WalkMetrics metrics, ExecutorService executor, int window) {
+        this.fullHash = fullHash;
+        this.prefixHash = prefixHash;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.window = window;
+    }
+
+    List<Group> find(List<String> fileNames) throws IOException {
+        final Map<Long, List<Candidate>> bySize = new LinkedHashMap<>();
+        for (Candidate candidate : map(fileNames, this::stat)) {
+            if (candidate != null) {
+                bySize.computeIfAbsent(candidate.size(), size -> new ArrayList<>()).add(candidate);
+            }
+        }
+
+        final List<Candidate> sameSize = collisions(bySize.values());
+        final List<String> prefixes = map(sameSize, candidate ->
+                prefixHash.apply(candidate.file(), (int) Math.min(PREFIX_SIZE, candidate.size())));
+        final Map<String, List<Candidate>> byPrefix = new LinkedHashMap<>();
+        final Map<Candidate, String> prefixOf = new HashMap<>();
+        for (int i = 0; i < sameSize.size(); i++) {
+            if (prefixes.get(i) != null) {
+                prefixOf.put(sameSize.get(i), prefixes.get(i));
+                final String key = sameSize.get(i).size() + ":" + prefixes.get(i);
+                byPrefix.computeIfAbsent(key, k -> new ArrayList<>()).add(sameSize.get(i));
+            }
+        }
+
+        final List<Candidate> samePrefix = collisions(byPrefix.values());
+        // a file that fits into the prefix has already been hashed whole
+        final List<String> hashes = map(samePrefix, candidate -> candidate.size() <= PREFIX_SIZE
+                ? prefixOf.get(candidate)
+                : fullHash.apply(candidate.file()));
+        final Map<String, Group> byHash = new LinkedHashMap<>();
+        for (int i = 0; i < samePrefix.size(); i++) {
+            final String hash = hashes.get(i);
+            if (hash != null) {
+                byHash.computeIfAbsent(samePrefix.get(i).size() + ":" + hash, k -> new Group(hash, new ArrayList<>()))
+                        .fileNames().add(samePrefix.get(i).fileName());
+            }
+        }
+        return byHash.values().stream().filter(group -> group.fileNames().size() > 1).toList();
+    }
+
+    private static <T> List<T> collisions(Collection<List<T>> groups) {
+        final List<T> result = new ArrayList<>();
+        for (List<T> group : groups) {
+            if (group.size() > 1) {
+                result.addAll(group);
+            }
+        }
+        return result;
+    }
+
+    private <T, R> List<R> map(List<T> items, Function<T, R> function) throws IOException {
+        final List<R> result = new ArrayList<>(items.size());
+        if (executor == null) {
+            for (T item : items) {
+                result.add(function.apply(item));
+            }
+            return result;
+        }
+        final Deque<Future<R>> pending = new ArrayDeque<>();
+        for (T item : items) {
+            pending.add(executor.submit(() -> function.apply(item)));
+            if (pending.size() >= window) {
+                result.add(Walk.await(pending.remove()));
+            }
+        }
+        while (!pending.isEmpty()) {
+            result.add(Walk.await(pending.remove()));
+        }
+        return result;
+    }
+
+    private Candidate stat(String fileName) {
+        try {
+            final Path file = Path.of(fileName);
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? new Candidate(fileName, file, attributes.size()) : null;
+        } catch (IOException | InvalidPathException | SecurityException e) {
+            System.out.println("Can't read file: " + e.getMessage());
+            metrics.recordInvalid();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import jdk.jfr.*;
+
+@Name("info.kgeorgiy.ja.bondarev.walk.FileHash")
+@Label("File Hash")
+@Category("Walk")
+@Description("Hashing of a single file")
+@StackTrace(false)
+class FileHashEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Open Time")
+    @Timespan
+    long openTime;
+
+    @Label("Read Time")
+    @Timespan
+    long readTime;
+
+    @Label("Cached")
+    boolean cached;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Prefix Only")
+    boolean prefix;
+}
@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+record HashAlgorithm(String name, int length, Supplier<Hasher> factory) {
+    interface Hasher {
+        void update(ByteBuffer buffer);
+
+        byte[] digest();
+    }
+
+    Hasher newHasher() {
+        return factory.get();
+    }
+
+    static HashAlgorithm forName(String name) throws NoSuchAlgorithmException {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "crc32c" -> new HashAlgorithm("crc32c", Integer.BYTES, Crc32cHasher::new);
+            case "xxh64" -> new HashAlgorithm("xxh64", Long.BYTES, XxHash64::new);
+            case "murmur3-128" -> new HashAlgorithm("murmur3-128", 2 * Long.BYTES, Murmur3Hash128::new);
+            default -> {
+                final int length = MessageDigest.getInstance(name).getDigestLength();
+                yield new HashAlgorithm(name, length, () -> new DigestHasher(name));
+            }
+        };
+    }
+
+    private static final class DigestHasher implements Hasher {
+        private final MessageDigest digest;
+
+        private DigestHasher(String name) {
+            try {
+                digest = MessageDigest.getInstance(name);
+            } catch (NoSuchAlgorithmException | SecurityException e) {
+                throw new RuntimeException("Wrong algorithm name");
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return digest.digest();
+        }
+    }
+
+    private static final class Crc32cHasher implements Hasher {
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            crc.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+// compares the DigestInputStream reading that Walk used before with its FileChannel paths.
+// Usage: HashBenchmark [file [algorithm [rounds]]], without a file a temporary one of 1 GiB is hashed.
+// Every path reads the file before timing, so the numbers are for a warm page cache
+public class HashBenchmark {
+    private static final long GENERATED_SIZE = 1L << 30;
+    private static final int OLD_BUFFER_SIZE = 1 << 13;
+
+    private interface Hashing {
+        byte[] hash(Path file) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException, NoSuchAlgorithmException {
+        final String name = args.length > 1 ? args[1] : "SHA-256";
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final Path file = args.length > 0 ? Path.of(args[0]) : generate();
+        try {
+            final HashAlgorithm algorithm = HashAlgorithm.forName(name);
+            final long size = Files.size(file);
+            System.out.printf("%s, %d bytes, best of %d rounds%n", name, size, rounds);
+            final boolean digest = isMessageDigest(name);
+            final byte[] expected = digest ? streamHash(file, name) : channelHash(file, algorithm, false);
+            if (digest) {
+                run("DigestInputStream", file, size, rounds, expected, f -> streamHash(f, name));
+            } else {
+                System.out.println("DigestInputStream        not a MessageDigest algorithm");
+            }
+            run("FileChannel, streamed", file, size, rounds, expected, f -> channelHash(f, algorithm, false));
+            run("FileChannel, mapped", file, size, rounds, expected, f -> channelHash(f, algorithm, true));
+        } finally {
+            if (args.length == 0) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void run(String title, Path file, long size, int rounds, byte[] expected, Hashing hashing)
+            throws IOException {
+        long best = Long.MAX_VALUE;
+        // the extra round warms up both the JIT and the page cache
+        for (int round = 0; round <= rounds; round++) {
+            final long start = System.nanoTime();
+            final byte[] hash = hashing.hash(file);
+            if (round > 0) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (!Arrays.equals(expected, hash)) {
+                throw new AssertionError(title + " gives a different hash");
+            }
+        }
+        System.out.printf("%-24s %9.1f MiB/s%n", title, size / (double) (1 << 20) / (best / 1e9));
+    }
+
+    private static boolean isMessageDigest(String name) {
+        try {
+            MessageDigest.getInstance(name);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    // the way Walk read files before it moved to FileChannel
+    private static byte[] streamHash(Path file, String name) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Not a MessageDigest algorithm: " + name);
+        }
+        try (InputStream input = new DigestInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), digest)) {
+            final byte[] buffer = new byte[OLD_BUFFER_SIZE];
+            while (input.read(buffer) != -1) {
+                // the stream updates the digest
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] channelHash(Path file, HashAlgorithm algorithm, boolean mapped) throws IOException {
+        final HashAlgorithm.Hasher hasher = algorithm.newHasher();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (mapped) {
+                Walk.digestMapped(channel, channel.size(), hasher);
+            } else {
+                Walk.digestStreamed(channel, hasher);
+            }
+        }
+        return hasher.digest();
+    }
+
+    private static Path generate() throws IOException {
+        final Path file = Files.createTempFile("hash-benchmark", ".bin");
+        final Random random = new Random(1);
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            for (long written = 0; written < GENERATED_SIZE; written += buffer.capacity()) {
+                random.nextBytes(buffer.array());
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        return file;
+    }
+}
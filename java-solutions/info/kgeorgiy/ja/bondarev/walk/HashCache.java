@@ -0,0 +1,146 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+class HashCache {
+    private static final int MAGIC = 0x57414C4B;
+    private static final int VERSION = 1;
+    private static final int MAX_KEY_LENGTH = 1 << 14;
+
+    private final Path file;
+    private final String algorithm;
+    private final int hashLength;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+
+    private record Entry(long size, long modified, String fileKey, byte[] hash) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && modified == attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)
+                    && fileKey.equals(fileKeyOf(attributes));
+        }
+    }
+
+    private HashCache(Path file, String algorithm, int hashLength) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.hashLength = hashLength;
+    }
+
+    static HashCache load(Path file, String algorithm, int hashLength) {
+        final HashCache cache = new HashCache(file, algorithm, hashLength);
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !algorithm.equals(in.readUTF())) {
+                return cache;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                final long size = in.readLong();
+                final long modified = in.readLong();
+                final String fileKey = in.readUTF();
+                // a damaged file must not yield a truncated hash, so the whole cache is dropped
+                if (in.readUnsignedByte() != hashLength) {
+                    throw new IOException("Corrupted cache entry for " + key);
+                }
+                final byte[] hash = new byte[hashLength];
+                in.readFully(hash);
+                cache.entries.put(key, new Entry(size, modified, fileKey, hash));
+            }
+        } catch (EOFException e) {
+            System.out.println("Cache file is truncated, starting with empty one");
+            cache.entries.clear();
+        } catch (IOException | SecurityException e) {
+            System.out.println("Can't read cache, starting with empty one: " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    private static String fileKeyOf(BasicFileAttributes attributes) {
+        return Objects.toString(attributes.fileKey(), "");
+    }
+
+    private static String keyOf(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    byte[] lookup(Path path, BasicFileAttributes attributes) {
+        final String key = keyOf(path);
+        visited.add(key);
+        final Entry entry = entries.get(key);
+        return entry != null && entry.matches(attributes) ? entry.hash().clone() : null;
+    }
+
+    void store(Path path, BasicFileAttributes attributes, byte[] hash) {
+        final String key = keyOf(path);
+        if (key.length() <= MAX_KEY_LENGTH && hash.length == hashLength) {
+            entries.put(key, new Entry(
+                    attributes.size(),
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    fileKeyOf(attributes),
+                    Arrays.copyOf(hash, hash.length)
+            ));
+        }
+    }
+
+    private void evictMissing() {
+        entries.keySet().removeIf(key -> {
+            if (visited.contains(key)) {
+                return false;
+            }
+            try {
+                return !Files.exists(Path.of(key));
+            } catch (InvalidPathException | SecurityException e) {
+                return true;
+            }
+        });
+    }
+
+    void save() throws IOException {
+        evictMissing();
+        final Path directory = file.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(algorithm);
+                final Map<String, Entry> snapshot = Map.copyOf(entries);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> item : snapshot.entrySet()) {
+                    final Entry entry = item.getValue();
+                    out.writeUTF(item.getKey());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.modified());
+                    out.writeUTF(entry.fileKey());
+                    out.writeByte(entry.hash().length);
+                    out.write(entry.hash());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+class Murmur3Hash128 extends BlockHasher {
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private long h1;
+    private long h2;
+
+    Murmur3Hash128() {
+        super(2 * Long.BYTES);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long finalMix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    @Override
+    protected void processBlock(ByteBuffer block) {
+        h1 ^= mixK1(block.getLong());
+        h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52DCE729;
+        h2 ^= mixK2(block.getLong());
+        h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495AB5;
+    }
+
+    @Override
+    protected byte[] finish(ByteBuffer tail, long length) {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = 0; tail.hasRemaining(); i++) {
+            final long value = Byte.toUnsignedLong(tail.get());
+            if (i < Long.BYTES) {
+                k1 |= value << (i * Byte.SIZE);
+            } else {
+                k2 |= value << ((i - Long.BYTES) * Byte.SIZE);
+            }
+        }
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = finalMix(h1);
+        h2 = finalMix(h2);
+        h1 += h2;
+        h2 += h1;
+        return ByteBuffer.allocate(2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2).array();
+    }
+}
@@ -1,32 +1,470 @@
 package info.kgeorgiy.ja.bondarev.walk;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 public class Walk {
     private static final String HASH_ALGORITHM = "SHA-256";
-    private static String hexFileHashSum(File file) {
+    private static final String THREADS_OPTION = "-threads";
+    private static final String CACHE_OPTION = "-cache";
+    private static final String RECURSIVE_OPTION = "-recursive";
+    private static final String ALGORITHM_OPTION = "-algorithm";
+    private static final String CHUNK_OPTION = "-chunk";
+    private static final String DUPLICATES_OPTION = "-duplicates";
+    private static final String METRICS_OPTION = "-metrics";
+    private static final String ASYNC_OPTION = "-async";
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte ROOT_PREFIX = 1;
+    private static final int PENDING_PER_THREAD = 4;
+    private static final long MAPPING_THRESHOLD = 1L << 23;
+    private static final long MAPPING_REGION = 1L << 28;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // shared between workers, so that short-lived virtual threads don't allocate direct memory
+    private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+    private int threads = 1;
+    private int async;
+    private boolean recursive;
+    private boolean duplicates;
+    private HashAlgorithm algorithm;
+    private long chunkSize;
+    private String cacheFile;
+    private HashCache cache;
+    private String metricsFile;
+    private WalkMetrics metrics;
+    private ForkJoinPool pool;
+
+    private String formatHash(byte[] hash) {
+        final String hex = HexFormat.of().formatHex(hash);
+        return chunkSize == 0 ? hex : hex + ":" + chunkSize;
+    }
+
+    private String zeroHash() {
+        return formatHash(new byte[algorithm.length()]);
+    }
+
+    private String hexFileHashSum(Path file) {
+        final String hash = tryHexFileHashSum(file);
+        return hash == null ? zeroHash() : hash;
+    }
+
+    // null if the file can't be read, so that a failure is never confused with a real hash
+    private String tryHexFileHashSum(Path file) {
+        return measured(file, false, event -> hexFileHashSum(file, event));
+    }
+
+    // hash of the first length bytes in the same format: for a file of at most length bytes
+    // it is the file hash; null if the file can't be read
+    private String tryHexPrefixHashSum(Path file, int length) {
+        return measured(file, true, event -> hexPrefixHashSum(file, length, event));
+    }
+
+    private String measured(Path file, boolean prefix, Function<FileHashEvent, String> hashing) {
+        final FileHashEvent event = new FileHashEvent();
+        event.prefix = prefix;
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            return hashing.apply(event);
+        } finally {
+            event.readTime = System.nanoTime() - start - event.openTime;
+            event.end();
+            metrics.record(event);
+            if (event.shouldCommit()) {
+                event.path = file.toString();
+                event.commit();
+            }
+        }
+    }
+
+    private String hexFileHashSum(Path file, FileHashEvent event) {
+        try {
+            if (cache == null) {
+                return formatHash(fileHashSum(file, event));
+            }
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final byte[] cached = cache.lookup(file, attributes);
+            if (cached != null) {
+                event.cached = true;
+                event.size = attributes.size();
+                return formatHash(cached);
+            }
+            final byte[] hash = fileHashSum(file, event);
+            if (attributes.isRegularFile()) {
+                cache.store(file, attributes, hash);
+            }
+            return formatHash(hash);
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            System.out.println("Can't read file: " + e.getMessage());
+        }
+        event.failed = true;
+        return null;
+    }
+
+    private String hexPrefixHashSum(Path file, int length, FileHashEvent event) {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = open(file, event)) {
+            event.size = channel.size();
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer)) != -1) {
+                event.bytesRead += read;
+            }
+        } catch (IOException | SecurityException e) {
+            System.out.println("Can't read file: " + e.getMessage());
+            event.failed = true;
+            return null;
+        }
+        return hexContentHashSum(buffer.flip());
+    }
+
+    private static FileChannel open(Path file, FileHashEvent event) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } finally {
+            // a slow failing open is an open stall too, not read time
+            event.openTime = System.nanoTime() - start;
+        }
+    }
+
+    private byte[] fileHashSum(Path file, FileHashEvent event) throws IOException {
+        if (chunkSize != 0) {
+            return treeHashSum(file, event);
+        }
+        final HashAlgorithm.Hasher hasher = algorithm.newHasher();
+        try (FileChannel channel = open(file, event)) {
+            final long size = channel.size();
+            event.size = size;
+            event.bytesRead = size >= MAPPING_THRESHOLD
+                    ? digestMapped(channel, size, hasher)
+                    : digestStreamed(channel, hasher);
+            return hasher.digest();
+        }
+    }
+
+    // these return the number of bytes hashed
+    static long digestMapped(FileChannel channel, long size, HashAlgorithm.Hasher hasher) throws IOException {
+        for (long position = 0; position < size; position += MAPPING_REGION) {
+            final long length = Math.min(MAPPING_REGION, size - position);
+            hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+        }
+        // file may have grown since size was taken
+        return size + digestStreamed(channel.position(size), hasher);
+    }
+
+    private byte[] treeHashSum(Path file, FileHashEvent event) throws IOException {
+        try (FileChannel channel = open(file, event)) {
+            final long size = channel.size();
+            event.size = size;
+            final long chunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+            final HashAlgorithm.Hasher root = algorithm.newHasher();
+            root.update(ByteBuffer.wrap(new byte[]{ROOT_PREFIX}));
+            final int window = threads * PENDING_PER_THREAD;
+            for (long first = 0; first < chunks; first += window) {
+                final List<Callable<byte[]>> leaves = new ArrayList<>(window);
+                for (long chunk = first; chunk < Math.min(chunks, first + window); chunk++) {
+                    final long position = chunk * chunkSize;
+                    final long length = Math.min(chunkSize, size - position);
+                    leaves.add(() -> chunkHashSum(channel, position, length));
+                }
+                final List<Future<byte[]>> results;
+                try {
+                    results = pool.invokeAll(leaves);
+                } catch (RejectedExecutionException e) {
+                    throw new InterruptedIOException("Hashing was cancelled");
+                }
+                for (Future<byte[]> leaf : results) {
+                    root.update(ByteBuffer.wrap(await(leaf)));
+                }
+            }
+            // every chunk was read in full, or the leaf would have failed
+            event.bytesRead = size;
+            return root.digest();
+        }
+    }
+
+    // the same hash as hexFileHashSum would give for a file with this content
+    private String hexContentHashSum(ByteBuffer content) {
+        final HashAlgorithm.Hasher hasher = algorithm.newHasher();
+        if (chunkSize == 0) {
+            hasher.update(content);
+            return formatHash(hasher.digest());
+        }
+        hasher.update(ByteBuffer.wrap(new byte[]{ROOT_PREFIX}));
+        final int size = content.remaining();
+        final long chunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+        for (long chunk = 0; chunk < chunks; chunk++) {
+            final int position = (int) (chunk * chunkSize);
+            final HashAlgorithm.Hasher leaf = algorithm.newHasher();
+            leaf.update(ByteBuffer.wrap(new byte[]{LEAF_PREFIX}));
+            leaf.update(content.slice(content.position() + position, (int) Math.min(chunkSize, size - position)));
+            hasher.update(ByteBuffer.wrap(leaf.digest()));
+        }
+        return formatHash(hasher.digest());
+    }
+
+    private byte[] chunkHashSum(FileChannel channel, long position, long length) throws IOException {
+        final HashAlgorithm.Hasher hasher = algorithm.newHasher();
+        hasher.update(ByteBuffer.wrap(new byte[]{LEAF_PREFIX}));
+        final long end = position + length;
+        if (length >= MAPPING_THRESHOLD) {
+            for (long offset = position; offset < end; offset += MAPPING_REGION) {
+                hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAPPING_REGION, end - offset)));
+            }
+            return hasher.digest();
+        }
+        final ByteBuffer buffer = acquireBuffer();
         try {
-            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
-            try (DigestInputStream digestInputStream = new DigestInputStream(
-                    new BufferedInputStream(new FileInputStream(file)), digest
-            )) {
-                byte[] buffer = new byte[1024 * 8];
-                while (digestInputStream.read(buffer) != -1) {
-                    // no operations.
+            for (long offset = position; offset < end; ) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - offset));
+                final int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new EOFException("File was truncated while hashing");
                 }
-                return HexFormat.of().formatHex(digest.digest());
-            } catch (IOException | SecurityException e) {
-                System.out.println("Can't read file: " + e.getMessage());
+                offset += read;
+                hasher.update(buffer.flip());
             }
-            return HexFormat.of().formatHex(new byte[digest.getDigestLength()]);
-        } catch (NoSuchAlgorithmException | SecurityException e) {
-            throw new RuntimeException("Wrong algorithm name");
+        } finally {
+            BUFFERS.add(buffer);
+        }
+        return hasher.digest();
+    }
+
+    static long digestStreamed(FileChannel channel, HashAlgorithm.Hasher hasher) throws IOException {
+        final ByteBuffer buffer = acquireBuffer();
+        long total = 0;
+        try {
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                total += read;
+                hasher.update(buffer.flip());
+                buffer.clear();
+            }
+            return total;
+        } finally {
+            BUFFERS.add(buffer);
+        }
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        final ByteBuffer buffer = BUFFERS.poll();
+        return buffer == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : buffer.clear();
+    }
+
+    private String hashLine(String fileName) {
+        final Path file;
+        try {
+            file = Path.of(fileName);
+        } catch (InvalidPathException e) {
+            System.out.println("Can't read file: " + e.getMessage());
+            metrics.recordInvalid();
+            return zeroHash() + " " + fileName;
+        }
+        return hexFileHashSum(file) + " " + fileName;
+    }
+
+    // hands the files to the sink as they are found, so a large tree is never listed in memory
+    private void expand(String fileName, DirectoryWalker.Sink sink) throws IOException {
+        if (!recursive) {
+            sink.accept(fileName);
+            return;
+        }
+        final Path file;
+        try {
+            file = Path.of(fileName);
+            if (!Files.isDirectory(file)) {
+                sink.accept(fileName);
+                return;
+            }
+        } catch (InvalidPathException | SecurityException e) {
+            sink.accept(fileName);
+            return;
+        }
+        new DirectoryWalker(pool).walk(file, fileName, sink);
+    }
+
+    private void walkSequential(BufferedReader reader, BufferedWriter writer) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            expand(line, fileName -> {
+                writer.write(hashLine(fileName));
+                writer.newLine();
+            });
+        }
+    }
+
+    private int window() {
+        return async == 0 ? threads * PENDING_PER_THREAD : async;
+    }
+
+    private ExecutorService newExecutor() {
+        if (async != 0) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // no virtual threads before Java 21, blocked platform threads are the next best thing
+                return Executors.newFixedThreadPool(async);
+            }
+        }
+        return threads == 1 ? null : Executors.newFixedThreadPool(threads);
+    }
+
+    private void walkParallel(BufferedReader reader, BufferedWriter writer) throws IOException {
+        final ExecutorService executor = newExecutor();
+        final int window = window();
+        try {
+            final Deque<Future<String>> pending = new ArrayDeque<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                expand(line, fileName -> {
+                    pending.add(executor.submit(() -> hashLine(fileName)));
+                    if (pending.size() >= window) {
+                        writeResult(writer, pending.remove());
+                    }
+                });
+            }
+            while (!pending.isEmpty()) {
+                writeResult(writer, pending.remove());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void walkDuplicates(BufferedReader reader, BufferedWriter writer) throws IOException {
+        final List<String> fileNames = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            expand(line, fileNames::add);
+        }
+        final ExecutorService executor = newExecutor();
+        try {
+            final DuplicateFinder finder = new DuplicateFinder(this::tryHexFileHashSum, this::tryHexPrefixHashSum,
+                    metrics, executor, window());
+            boolean first = true;
+            for (DuplicateFinder.Group group : finder.find(fileNames)) {
+                if (!first) {
+                    writer.newLine();
+                }
+                first = false;
+                for (String fileName : group.fileNames()) {
+                    writer.write(group.hash() + " " + fileName);
+                    writer.newLine();
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void writeResult(BufferedWriter writer, Future<String> result) throws IOException {
+        writer.write(await(result));
+        writer.newLine();
+    }
+
+    static <T> T await(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for hash sum");
+        } catch (ExecutionException e) {
+            // ForkJoinPool.invokeAll wraps the checked exceptions of its callables in RuntimeException,
+            // and ForkJoinTask.get may wrap them once more
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static boolean isOption(String arg) {
+        return THREADS_OPTION.equals(arg) || CACHE_OPTION.equals(arg)
+                || RECURSIVE_OPTION.equals(arg) || ALGORITHM_OPTION.equals(arg) || CHUNK_OPTION.equals(arg)
+                || DUPLICATES_OPTION.equals(arg) || METRICS_OPTION.equals(arg) || ASYNC_OPTION.equals(arg);
+    }
+
+    private boolean parseOption(String option, String value) {
+        switch (option) {
+            case THREADS_OPTION -> {
+                try {
+                    threads = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    System.out.println("Number of threads must be integer: " + value);
+                    return false;
+                }
+                if (threads < 1) {
+                    System.out.println("Number of threads must be positive: " + threads);
+                    return false;
+                }
+            }
+            case ASYNC_OPTION -> {
+                try {
+                    async = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    System.out.println("Concurrency must be integer: " + value);
+                    return false;
+                }
+                if (async < 1) {
+                    System.out.println("Concurrency must be positive: " + async);
+                    return false;
+                }
+            }
+            case CACHE_OPTION -> cacheFile = value;
+            case METRICS_OPTION -> metricsFile = value;
+            case CHUNK_OPTION -> {
+                try {
+                    chunkSize = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    System.out.println("Chunk size must be integer: " + value);
+                    return false;
+                }
+                if (chunkSize < 1) {
+                    System.out.println("Chunk size must be positive: " + chunkSize);
+                    return false;
+                }
+            }
+            case ALGORITHM_OPTION -> {
+                try {
+                    algorithm = HashAlgorithm.forName(value);
+                } catch (NoSuchAlgorithmException | SecurityException e) {
+                    System.out.println("Unknown hash algorithm: " + value);
+                    return false;
+                }
+            }
+            default -> throw new AssertionError("Unknown option " + option);
         }
+        return true;
     }
 
     public static void main(String[] args) {
@@ -34,20 +472,40 @@ public class Walk {
             System.out.println("Array of arguments is null");
             return;
         }
-        if (args.length != 2) {
-            System.out.println("Expected 2 arguments, but get " + args.length);
+        final Walk walk = new Walk();
+        int position = 0;
+        while (position < args.length && isOption(args[position])) {
+            final String option = args[position++];
+            if (RECURSIVE_OPTION.equals(option)) {
+                walk.recursive = true;
+                continue;
+            }
+            if (DUPLICATES_OPTION.equals(option)) {
+                walk.duplicates = true;
+                continue;
+            }
+            if (position >= args.length || args[position] == null) {
+                System.out.println("Expected value after " + option);
+                return;
+            }
+            if (!walk.parseOption(option, args[position++])) {
+                return;
+            }
+        }
+        if (args.length - position != 2) {
+            System.out.println("Expected 2 arguments, but get " + (args.length - position));
             return;
         }
-        if (args[0] == null) {
+        if (args[position] == null) {
             System.out.println("First argument must be not null");
             return;
         }
-        if (args[1] == null) {
+        if (args[position + 1] == null) {
             System.out.println("Second argument must be not null");
             return;
         }
-        File inputFile = new File(args[0]);
-        File outputFile = new File(args[1]);
+        File inputFile = new File(args[position]);
+        File outputFile = new File(args[position + 1]);
         try {
             File parent = outputFile.getParentFile();
             if (!inputFile.exists()) {
@@ -66,16 +524,58 @@ public class Walk {
             System.out.println("Can't get access to file " + e.getMessage());
             return;
         }
+        try {
+            if (walk.algorithm == null) {
+                walk.algorithm = HashAlgorithm.forName(HASH_ALGORITHM);
+            }
+            if (walk.cacheFile != null) {
+                final String cacheKey = walk.chunkSize == 0
+                        ? walk.algorithm.name()
+                        : walk.algorithm.name() + ":" + walk.chunkSize;
+                walk.cache = HashCache.load(Path.of(walk.cacheFile), cacheKey, walk.algorithm.length());
+            }
+        } catch (NoSuchAlgorithmException | SecurityException e) {
+            throw new RuntimeException("Wrong algorithm name");
+        } catch (InvalidPathException e) {
+            System.out.println("Invalid cache file: " + e.getMessage());
+            return;
+        }
+        walk.run(inputFile, outputFile);
+    }
 
+    private void run(File inputFile, File outputFile) {
+        metrics = new WalkMetrics();
+        if (recursive || chunkSize != 0) {
+            pool = new ForkJoinPool(threads);
+        }
         try (BufferedReader bufferedReader = new BufferedReader(new FileReader(inputFile, StandardCharsets.UTF_8));
              BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(outputFile, StandardCharsets.UTF_8))) {
-            String fileName;
-            while ((fileName = bufferedReader.readLine()) != null) {
-                bufferedWriter.write(hexFileHashSum(new File(fileName)) + " " + fileName);
-                bufferedWriter.newLine();
+            if (duplicates) {
+                walkDuplicates(bufferedReader, bufferedWriter);
+            } else if (threads == 1 && async == 0) {
+                walkSequential(bufferedReader, bufferedWriter);
+            } else {
+                walkParallel(bufferedReader, bufferedWriter);
             }
         } catch (IOException | SecurityException e) {
             System.out.println("Can't read or write file " + e.getMessage());
+            return;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        try {
+            metrics.commit(metricsFile == null ? null : Path.of(metricsFile));
+        } catch (IOException | InvalidPathException | SecurityException e) {
+            System.out.println("Can't write metrics " + e.getMessage());
+        }
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException | SecurityException e) {
+                System.out.println("Can't write cache " + e.getMessage());
+            }
         }
     }
 }
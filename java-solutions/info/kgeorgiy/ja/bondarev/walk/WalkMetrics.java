@@ -0,0 +1,89 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+class WalkMetrics {
+    private static final int BUCKETS = 40;
+
+    private final long start = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder cachedBytes = new LongAdder();
+    private final LongAdder openTime = new LongAdder();
+    private final LongAdder readTime = new LongAdder();
+    // bucket i holds latencies in [2^(i-1), 2^i) microseconds
+    private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+
+    void record(FileHashEvent event) {
+        if (event.failed) {
+            errors.increment();
+        }
+        if (event.cached) {
+            cacheHits.increment();
+            cachedBytes.add(event.size);
+        }
+        bytes.add(event.bytesRead);
+        openTime.add(event.openTime);
+        readTime.add(event.readTime);
+        // a prefix read is a part of the work on some file, not a file of its own
+        if (!event.prefix) {
+            files.increment();
+            final long micros = TimeUnit.NANOSECONDS.toMicros(event.openTime + event.readTime);
+            latency.incrementAndGet(Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros)));
+        }
+    }
+
+    void recordInvalid() {
+        files.increment();
+        errors.increment();
+    }
+
+    void commit(Path summary) throws IOException {
+        final double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+        final WalkSummaryEvent event = new WalkSummaryEvent();
+        event.files = files.sum();
+        event.errors = errors.sum();
+        event.cacheHits = cacheHits.sum();
+        event.bytes = bytes.sum();
+        event.cachedBytes = cachedBytes.sum();
+        event.filesPerSecond = event.files / seconds;
+        event.bytesPerSecond = event.bytes / seconds;
+        event.openTime = openTime.sum();
+        event.readTime = readTime.sum();
+        event.commit();
+        if (summary != null) {
+            write(summary, event, seconds);
+        }
+    }
+
+    private void write(Path summary, WalkSummaryEvent event, double seconds) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(summary, StandardCharsets.UTF_8)) {
+            writer.write(String.format(Locale.ROOT, "{\"seconds\":%.6f,\"files\":%d,\"errors\":%d,\"cacheHits\":%d,"
+                            + "\"bytes\":%d,\"cachedBytes\":%d,\"filesPerSecond\":%.3f,\"bytesPerSecond\":%.3f,"
+                            + "\"openNanos\":%d,\"readNanos\":%d,\"latencyMicros\":[",
+                    seconds, event.files, event.errors, event.cacheHits, event.bytes, event.cachedBytes,
+                    event.filesPerSecond, event.bytesPerSecond, event.openTime, event.readTime));
+            boolean first = true;
+            for (int i = 0; i < BUCKETS; i++) {
+                final long count = latency.get(i);
+                if (count != 0) {
+                    writer.write(String.format(Locale.ROOT, "%s{\"below\":%d,\"count\":%d}",
+                            first ? "" : ",", 1L << i, count));
+                    first = false;
+                }
+            }
+            writer.write("]}");
+            writer.newLine();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import jdk.jfr.*;
+
+@Name("info.kgeorgiy.ja.bondarev.walk.Summary")
+@Label("Walk Summary")
+@Category("Walk")
+@StackTrace(false)
+class WalkSummaryEvent extends Event {
+    @Label("Files")
+    long files;
+
+    @Label("Errors")
+    long errors;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytes;
+
+    @Label("Cached Bytes")
+    @DataAmount
+    long cachedBytes;
+
+    @Label("Files Per Second")
+    @Frequency
+    double filesPerSecond;
+
+    @Label("Bytes Per Second")
+    @DataAmount(DataAmount.BYTES)
+    @Frequency
+    double bytesPerSecond;
+
+    @Label("Open Time")
+    @Timespan
+    long openTime;
+
+    @Label("Read Time")
+    @Timespan
+    long readTime;
+}
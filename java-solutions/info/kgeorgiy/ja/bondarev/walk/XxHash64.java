@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.bondarev.walk;
+
+import java.nio.ByteBuffer;
+
+class XxHash64 extends BlockHasher {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private long v1 = PRIME_1 + PRIME_2;
+    private long v2 = PRIME_2;
+    private long v3 = 0;
+    private long v4 = -PRIME_1;
+
+    XxHash64() {
+        super(4 * Long.BYTES);
+    }
+
+    private static long round(long accumulator, long input) {
+        return Long.rotateLeft(accumulator + input * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        return (hash ^ round(0, accumulator)) * PRIME_1 + PRIME_4;
+    }
+
+    @Override
+    protected void processBlock(ByteBuffer block) {
+        v1 = round(v1, block.getLong());
+        v2 = round(v2, block.getLong());
+        v3 = round(v3, block.getLong());
+        v4 = round(v4, block.getLong());
+    }
+
+    @Override
+    protected byte[] finish(ByteBuffer tail, long length) {
+        long hash;
+        if (length >= 4 * Long.BYTES) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += length;
+
+        while (tail.remaining() >= Long.BYTES) {
+            hash = Long.rotateLeft(hash ^ round(0, tail.getLong()), 27) * PRIME_1 + PRIME_4;
+        }
+        if (tail.remaining() >= Integer.BYTES) {
+            hash = Long.rotateLeft(hash ^ (Integer.toUnsignedLong(tail.getInt()) * PRIME_1), 23) * PRIME_2 + PRIME_3;
+        }
+        while (tail.hasRemaining()) {
+            hash = Long.rotateLeft(hash ^ (Byte.toUnsignedLong(tail.get()) * PRIME_5), 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return ByteBuffer.allocate(Long.BYTES).putLong(hash).array();
+    }
+}